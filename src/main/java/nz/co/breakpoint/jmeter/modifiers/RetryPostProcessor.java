@@ -5,12 +5,20 @@ import org.apache.jmeter.samplers.Sampler;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testbeans.TestBean;
 import org.apache.jmeter.testelement.AbstractTestElement;
+import org.apache.jmeter.testelement.TestStateListener;
 import org.apache.jmeter.testelement.property.DoubleProperty;
 import org.apache.jmeter.threads.JMeterContext;
 import org.apache.jmeter.util.JMeterUtils;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -22,7 +30,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
-public class RetryPostProcessor extends AbstractTestElement implements PostProcessor, TestBean {
+public class RetryPostProcessor extends AbstractTestElement implements PostProcessor, TestBean, TestStateListener {
 
     private static final long serialVersionUID = 1L;
 
@@ -35,15 +43,29 @@ public class RetryPostProcessor extends AbstractTestElement implements PostProce
             JITTER = "jitter",
             RESPONSE_PART = "responsePart",
             ERROR_PATTERN = "errorPattern",
-            RETRY_AFTER = "retryAfter";
+            RETRY_AFTER = "retryAfter",
+            SCRIPT_LANGUAGE = "scriptLanguage",
+            SCRIPT = "script";
 
     public static final String
             SAMPLE_LABEL_SUFFIX_PROPERTY = "jmeter.retrier.sampleLabelSuffix",
             SAMPLE_LABEL_SUFFIX_PROPERTY_DEFAULT = "-retry",
             BACKOFF_MULTIPLIER_PROPERTY = "jmeter.retrier.backoffMultiplier";
 
+    public static final String SCRIPT_LANGUAGE_DEFAULT = "groovy";
+
     public static final Pattern RETRY_AFTER_HEADER_PATTERN = Pattern.compile("\\bRetry-After: (\\V*)"); // word boundary/non-vertical whitespace
 
+    private static ScriptEngineManager scriptEngineManager;
+
+    // Test elements are cloned per thread, so these need no synchronization:
+    private transient String compiledScriptKey; // language and script text the script was compiled from
+    private transient CompiledScript compiledScript; // null if compilation failed
+    private transient Bindings bindings;
+    private transient int attempt;
+    private transient long elapsed;
+    private transient long pauseOverride = -1;
+
     @Override
     public void process() {
         long retries = getMaxRetries();
@@ -57,6 +79,9 @@ public class RetryPostProcessor extends AbstractTestElement implements PostProce
         SampleResult res = prev;
 
         for (int i = 1; retries < 0 || retries-- > 0; i++) {
+            attempt = i;
+            elapsed = System.currentTimeMillis() - prev.getStartTime();
+            pauseOverride = -1;
             if (!isRetryCondition(sampler, res)) {
                 log.debug("Not retrying sampler \"{}\"", sampler.getName());
                 return;
@@ -70,6 +95,10 @@ public class RetryPostProcessor extends AbstractTestElement implements PostProce
     }
 
     protected boolean isRetryCondition(Sampler sampler, SampleResult lastResult) {
+        final String script = getScript();
+        if (script != null && !script.isEmpty()) {
+            return isScriptedRetryCondition(sampler, lastResult);
+        }
         ResponsePart part = ResponsePart.fromTag(getResponsePart());
         String responsePart = part.extractPart(lastResult);
         final String errorPattern = getErrorPattern();
@@ -88,11 +117,121 @@ public class RetryPostProcessor extends AbstractTestElement implements PostProce
         return !lastResult.isSuccessful();
     }
 
+    /**
+     * Evaluates the script with the last result, the number of the upcoming retry and the milliseconds elapsed
+     * since the initial attempt bound to variables "prev", "attempt" and "elapsed".
+     * The script returns a boolean (whether to retry) or a number (pause in milliseconds before retrying,
+     * overriding the configured pause and backoff). Anything else means no retry.
+     * Bindings are reused but cleared before each evaluation, so no state carries over between evaluations.
+     */
+    protected boolean isScriptedRetryCondition(Sampler sampler, SampleResult lastResult) {
+        final CompiledScript compiledScript = getCompiledScript();
+        if (compiledScript == null) {
+            return false;
+        }
+        if (bindings == null) {
+            bindings = compiledScript.getEngine().createBindings();
+        }
+        JMeterContext context = getThreadContext();
+        bindings.clear(); // discard any variables assigned by the previous evaluation
+        bindings.put("log", log);
+        bindings.put("ctx", context);
+        bindings.put("vars", context.getVariables());
+        bindings.put("props", JMeterUtils.getJMeterProperties());
+        bindings.put("sampler", sampler);
+        bindings.put("prev", lastResult);
+        bindings.put("attempt", attempt);
+        bindings.put("elapsed", elapsed);
+        try {
+            final Object result = compiledScript.eval(bindings);
+            log.debug("Retry script returned {}", result);
+            if (result instanceof Boolean) {
+                return (Boolean) result;
+            }
+            if (result instanceof Number) {
+                pauseOverride = Math.max(0, ((Number) result).longValue());
+                return true;
+            }
+            return false;
+        } catch (ScriptException e) {
+            log.error("Retry script failed", e);
+            return false;
+        }
+    }
+
+    /**
+     * Compiles the script only if language or script have changed since the last call,
+     * remembering compilation failures too.
+     * @return compiled script or null if it could not be compiled
+     */
+    protected CompiledScript getCompiledScript() {
+        final String language = getScriptLanguageOrDefault();
+        final String script = getScript();
+        final String key = language + "\n" + script;
+        if (!key.equals(compiledScriptKey)) {
+            compiledScriptKey = key;
+            compiledScript = null;
+            bindings = null;
+            final ScriptEngine engine = getScriptEngineManager().getEngineByName(language);
+            if (!(engine instanceof Compilable)) {
+                log.error("Ignoring retry script as there is no compilable script engine for language {}", language);
+            } else {
+                try {
+                    log.debug("Compiling {} retry script", language);
+                    compiledScript = ((Compilable) engine).compile(script);
+                } catch (ScriptException e) {
+                    log.error("Ignoring invalid retry script", e);
+                }
+            }
+        }
+        return compiledScript;
+    }
+
+    /**
+     * @return names of all installed script engines that support compilation
+     */
+    public static String[] getCompilableLanguages() {
+        return getScriptEngineManager().getEngineFactories().stream()
+                .filter(f -> f.getScriptEngine() instanceof Compilable)
+                .map(ScriptEngineFactory::getNames)
+                .filter(names -> !names.isEmpty())
+                .map(names -> names.get(0))
+                .sorted()
+                .toArray(String[]::new);
+    }
+
+    private static synchronized ScriptEngineManager getScriptEngineManager() {
+        if (scriptEngineManager == null) {
+            scriptEngineManager = new ScriptEngineManager();
+        }
+        return scriptEngineManager;
+    }
+
+    @Override
+    public void testStarted() {
+        final String script = getScript();
+        if (script != null && !script.isEmpty()) {
+            final String language = getScriptLanguageOrDefault();
+            if (!(getScriptEngineManager().getEngineByName(language) instanceof Compilable)) {
+                log.warn("No compilable script engine for language {}, retry script will be ignored", language);
+            }
+        }
+    }
+
+    @Override
+    public void testStarted(String host) { testStarted(); }
+
+    @Override
+    public void testEnded() {}
+
+    @Override
+    public void testEnded(String host) {}
+
     /**
      * @return true iff interrupted during pause
      */
     protected boolean pause(SampleResult result, int retry) {
-        long pause = BackoffType.fromTag(getBackoff())
+        long pause = pauseOverride >= 0 ? pauseOverride : BackoffType.fromTag(getBackoff())
                 .nextPause(getPauseMilliseconds(), retry, getJitter());
 
         if (getRetryAfter()) {
@@ -204,6 +343,16 @@ public class RetryPostProcessor extends AbstractTestElement implements PostProce
     public boolean getRetryAfter() { return getPropertyAsBoolean(RETRY_AFTER); }
     public void setRetryAfter(boolean retryAfter) { setProperty(RETRY_AFTER, retryAfter); }
 
+    public String getScriptLanguage() { return getPropertyAsString(SCRIPT_LANGUAGE); }
+    protected String getScriptLanguageOrDefault() {
+        final String language = getScriptLanguage();
+        return language == null || language.isEmpty() ? SCRIPT_LANGUAGE_DEFAULT : language;
+    }
+    public void setScriptLanguage(String scriptLanguage) { setProperty(SCRIPT_LANGUAGE, scriptLanguage); }
+
+    public String getScript() { return getPropertyAsString(SCRIPT); }
+    public void setScript(String script) { setProperty(SCRIPT, script); }
+
     public enum ResponsePart {
         NONE,
         RESPONSE_CODE {
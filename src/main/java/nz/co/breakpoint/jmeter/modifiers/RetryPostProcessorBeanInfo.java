@@ -12,7 +12,7 @@ public class RetryPostProcessorBeanInfo extends BeanInfoSupport {
         super(RetryPostProcessor.class);
 
         createPropertyGroup("RetryConditions", new String[]{
-                MAX_RETRIES, RESPONSE_PART, ERROR_PATTERN
+                MAX_RETRIES, RESPONSE_PART, ERROR_PATTERN, SCRIPT_LANGUAGE, SCRIPT
         });
         PropertyDescriptor p;
 
@@ -30,6 +30,16 @@ public class RetryPostProcessorBeanInfo extends BeanInfoSupport {
         p.setValue(NOT_UNDEFINED, Boolean.TRUE);
         p.setValue(DEFAULT, "");
 
+        p = property(SCRIPT_LANGUAGE, TypeEditor.ComboStringEditor);
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, SCRIPT_LANGUAGE_DEFAULT);
+        p.setValue(TAGS, RetryPostProcessor.getCompilableLanguages());
+
+        p = property(SCRIPT, TypeEditor.TextAreaEditor);
+        p.setValue(NOT_UNDEFINED, Boolean.TRUE);
+        p.setValue(DEFAULT, "");
+        p.setValue(TEXT_LANGUAGE, SCRIPT_LANGUAGE_DEFAULT);
+
         createPropertyGroup("DelaySettings", new String[]{
                 PAUSE_MILLISECONDS, BACKOFF, JITTER, RETRY_AFTER
         });
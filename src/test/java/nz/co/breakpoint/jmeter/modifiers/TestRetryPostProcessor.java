@@ -7,6 +7,7 @@ import org.apache.jmeter.threads.JMeterContext;
 import org.apache.jmeter.threads.JMeterContextService;
 import org.junit.Before;
 import org.junit.Test;
+import javax.script.CompiledScript;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
@@ -230,4 +231,113 @@ public class TestRetryPostProcessor {
         long duration = Duration.between(start, Instant.now()).toMillis();
         assertTrue("Expect at least 3 sec pause", duration >= 3000);
     }
+
+    @Test
+    public void itShouldRetryWhileScriptReturnsTrue() {
+        instance.setMaxRetries(10);
+        instance.setScript("prev.responseCode != 'code1'");
+        instance.process();
+        assertEquals("Expect one original and 2 retried sub-results", 3, prev.getSubResults().length);
+    }
+
+    @Test
+    public void itShouldBindAttemptNumber() {
+        instance.setMaxRetries(10);
+        instance.setScript("attempt <= 2");
+        instance.process();
+        assertEquals("Expect one original and 2 retried sub-results", 3, prev.getSubResults().length);
+    }
+
+    @Test
+    public void itShouldBindElapsedTime() {
+        instance.setMaxRetries(10);
+        instance.setScript("elapsed < 700 ? 500 : false"); // retries after about 0 and 500 ms, but not 1000 ms
+        assertNotNull(instance.getCompiledScript()); // compile before the initial attempt
+        sampler.setRemainingFailures(3);
+        prev = sampler.sample(null);
+        context.setPreviousResult(prev);
+        instance.process();
+        assertEquals("Expect one original and 2 retried sub-results", 3, prev.getSubResults().length);
+    }
+
+    @Test
+    public void itShouldPauseForNumberReturnedByScript() {
+        instance.setPauseMilliseconds(10000);
+        instance.setBackoff(BackoffType.EXPONENTIAL.toTag());
+        instance.setScript("100");
+        assertNotNull(instance.getCompiledScript()); // compile before measuring
+        Instant start = Instant.now();
+        instance.process();
+        long duration = Duration.between(start, Instant.now()).toMillis();
+        assertEquals("Expect four sub-results", 4, prev.getSubResults().length);
+        assertTrue("Expect 3 pauses of 100 ms", duration >= 300 && duration < 1000);
+    }
+
+    @Test
+    public void itShouldNotPauseForNegativeNumberReturnedByScript() {
+        instance.setPauseMilliseconds(10000);
+        instance.setScript("-1000");
+        assertNotNull(instance.getCompiledScript()); // compile before measuring
+        Instant start = Instant.now();
+        instance.process();
+        long duration = Duration.between(start, Instant.now()).toMillis();
+        assertEquals("Expect four sub-results", 4, prev.getSubResults().length);
+        assertTrue("Expect no pauses", duration < 1000);
+    }
+
+    @Test
+    public void itShouldNotRetryForOtherScriptResults() {
+        for (String script : new String[]{ "null", "'true'", "[]" }) {
+            instance.setScript(script);
+            instance.process();
+            assertEquals("Expect no sub-results", 0, prev.getSubResults().length);
+        }
+    }
+
+    @Test
+    public void itShouldPreferScriptOverErrorPattern() {
+        instance.setResponsePart(RESPONSE_CODE.toTag());
+        instance.setErrorPattern("no match");
+        instance.setScript("true");
+        instance.process();
+        assertEquals("Expect one original and 3 retried sub-results", 4, prev.getSubResults().length);
+    }
+
+    @Test
+    public void itShouldClearScriptVariablesBetweenEvaluations() {
+        instance.setScript("if (binding.hasVariable('seen')) return false; seen = true; true");
+        instance.process();
+        assertEquals("Expect one original and 3 retried sub-results", 4, prev.getSubResults().length);
+    }
+
+    @Test
+    public void itShouldIgnoreInvalidScripts() {
+        instance.setScript("{");
+        instance.process();
+        assertEquals("Original result must be unmodified", prev, context.getPreviousResult());
+        assertEquals("Expect no sub-results", 0, prev.getSubResults().length);
+    }
+
+    @Test
+    public void itShouldIgnoreUnknownScriptLanguages() {
+        instance.setScriptLanguage("unknown");
+        instance.setScript("true");
+        assertNull(instance.getCompiledScript());
+        instance.process();
+        assertEquals("Expect no sub-results", 0, prev.getSubResults().length);
+    }
+
+    @Test
+    public void itShouldCacheCompiledScripts() {
+        instance.setScript("true");
+        final CompiledScript compiledScript = instance.getCompiledScript();
+        assertSame(compiledScript, instance.getCompiledScript());
+        instance.setScript("false");
+        assertNotSame(compiledScript, instance.getCompiledScript());
+    }
+
+    @Test
+    public void itShouldOfferCompilableLanguages() {
+        assertTrue(Arrays.asList(RetryPostProcessor.getCompilableLanguages()).contains("groovy"));
+    }
 }